@@ -0,0 +1,129 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import net.minecraftforge.srgutils.IMappingBuilder;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.minecraftforge.srgutils.IMappingFile.IClass;
+import net.minecraftforge.srgutils.IMappingFile.IMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.parchmentmc.feather.mapping.MappingDataBuilder;
+import org.parchmentmc.feather.mapping.MappingDataContainer.MethodData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the row generation of {@link ParchmentChannelProvider}. Every benchmark produces {@link #ROWS} rows
+ * per operation, so run with {@code -prof gc} and divide {@code gc.alloc.rate.norm} by it for the allocation per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParchmentChannelProviderBenchmark {
+    private static final int METHODS = 100;
+    public static final int ROWS = METHODS * 4;
+    private static final String DESCRIPTOR = "(IJLjava/lang/String;[D)V";
+    // Non-static, so index 0 is this and the long takes up 2 and 3
+    private static final byte[] JVM_INDICES = {1, 2, 4, 5};
+
+    private final ParchmentChannelProvider provider = new ParchmentChannelProvider();
+    private final MappingCsv csv = new MappingCsv();
+    private final List<IMethod> officialMethods = new ArrayList<>(METHODS);
+    private final List<IMethod> legacyMethods = new ArrayList<>(METHODS);
+    private final List<MethodData> methodData = new ArrayList<>(METHODS);
+    private IClass officialClass;
+
+    @Setup
+    public void setup() {
+        IMappingBuilder officialBuilder = IMappingBuilder.create("left", "right");
+        IMappingBuilder.IClass officialCls = officialBuilder.addClass("net/minecraft/world/level/Level", "net/minecraft/world/level/Level");
+        IMappingBuilder legacyBuilder = IMappingBuilder.create("left", "right");
+        IMappingBuilder.IClass legacyCls = legacyBuilder.addClass("net/minecraft/world/World", "net/minecraft/world/World");
+        MappingDataBuilder.MutableClassData classData = new MappingDataBuilder().createClass("net/minecraft/world/level/Level");
+
+        for (int i = 0; i < METHODS; i++) {
+            IMappingBuilder.IMethod method = officialCls.method(DESCRIPTOR, "method" + i, "m_" + (10000 + i) + "_");
+            for (int p = 0; p < JVM_INDICES.length; p++)
+                method.parameter(p, "o" + p, "p_" + (20000 + i * 4 + p) + "_");
+            legacyCls.method(DESCRIPTOR, "method" + i, "func_" + (10000 + i) + "_a");
+
+            MappingDataBuilder.MutableMethodData data = classData.createMethod("method" + i, DESCRIPTOR);
+            for (byte jvmIndex : JVM_INDICES)
+                data.createParameter(jvmIndex).setName("param" + jvmIndex);
+            methodData.add(data);
+        }
+
+        IMappingFile official = officialBuilder.build().getMap("left", "right");
+        officialClass = official.getClass("net/minecraft/world/level/Level");
+        for (int i = 0; i < METHODS; i++)
+            officialMethods.add(officialClass.getMethod("method" + i, DESCRIPTOR));
+
+        IClass legacyClass = legacyBuilder.build().getMap("left", "right").getClass("net/minecraft/world/World");
+        for (int i = 0; i < METHODS; i++)
+            legacyMethods.add(legacyClass.getMethod("method" + i, DESCRIPTOR));
+    }
+
+    @Benchmark
+    public MappingCsv populateParametersOfficial() {
+        csv.clear();
+        for (int i = 0; i < METHODS; i++)
+            provider.populateParameters(true, csv, null, officialMethods.get(i), methodData.get(i), null);
+        return csv;
+    }
+
+    @Benchmark
+    public MappingCsv populateParametersLegacy() {
+        csv.clear();
+        for (int i = 0; i < METHODS; i++)
+            provider.populateParameters(false, csv, null, legacyMethods.get(i), methodData.get(i), null);
+        return csv;
+    }
+
+    @Benchmark
+    public MappingCsv populateMappings() {
+        csv.clear();
+        for (int i = 0; i < METHODS; i++) {
+            // One renamed method row and three documented special member rows, which need the Class#member name
+            provider.populateMappings(csv, officialClass, officialMethods.get(i), null);
+            provider.populateMappings(csv, officialClass, null, "Javadoc", "<init>", "<init>", false);
+            provider.populateMappings(csv, officialClass, null, "Javadoc", "<init>", "<init>", false);
+            provider.populateMappings(csv, officialClass, null, "Javadoc", "<init>", "<init>", false);
+        }
+        return csv;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only lookup table from SRG names to Parchment names and javadocs, backed by a memory-mapped index file.
+ * <p>
+ * Index files are generated next to each Parchment mappings zip, and contain the same rows as its CSV files.
+ * Keys are the values of the {@code searge} column, so class and package keys use their dotted names and special
+ * members use the {@code Class#member} form. Javadocs are returned as they are stored in the CSV files, with lines
+ * separated by a literal {@code \n}.
+ * <p>
+ * Lookups are a binary search over the mapped file, so only the entries which are queried are decoded onto the heap.
+ * Instances are safe to share between threads.
+ * <p>
+ * The mapping stays alive until the instance is garbage collected, and on Windows a mapped file cannot be replaced.
+ * Long-running tools should therefore not keep an index open across builds which may regenerate it, or should
+ * {@linkplain #open(Path) open} a copy of the file instead. Librarian treats a failure to replace the index as
+ * non-fatal, so the index may then be older than its mappings zip.
+ */
+public final class ParchmentMappingIndex {
+    private static final int MAGIC = 0x4C504D49; // LPMI
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int dataStart;
+
+    private ParchmentMappingIndex(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+        this.dataStart = HEADER_SIZE + size * ENTRY_SIZE;
+    }
+
+    /**
+     * Opens and memory-maps the given index file.
+     *
+     * @param path the index file
+     * @return the index
+     * @throws IOException if the file could not be read or is not a valid index file
+     */
+    @Nonnull
+    public static ParchmentMappingIndex open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new IOException("File " + path + " is not a Parchment mapping index");
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unsupported Parchment mapping index version " + version + " in " + path);
+        int size = buffer.getInt(8);
+        if (size < 0 || HEADER_SIZE + (long) size * ENTRY_SIZE > buffer.capacity())
+            throw new IOException("Parchment mapping index " + path + " is truncated");
+
+        // Check every string reference up front, so lookups can never read outside the file
+        long dataSize = buffer.capacity() - (HEADER_SIZE + (long) size * ENTRY_SIZE);
+        for (int pos = HEADER_SIZE; pos < HEADER_SIZE + size * ENTRY_SIZE; pos += 8) {
+            int offset = buffer.getInt(pos);
+            int length = buffer.getInt(pos + 4);
+            if (offset < 0 || length < 0 || (long) offset + length > dataSize)
+                throw new IOException("Parchment mapping index " + path + " is corrupt");
+        }
+        return new ParchmentMappingIndex(buffer, size);
+    }
+
+    /**
+     * Writes an index file for the given rows. Each row is a {@code searge, name, desc} triple as written to the CSV
+     * files. Rows sharing an SRG name (such as overriding methods) are merged the same way ForgeGradle applies the
+     * CSV files: the last name wins, and a javadoc is only replaced by a later non-empty one.
+     *
+     * @param path the index file to write
+     * @param rows the rows to index
+     * @throws IOException if the file could not be written
+     */
+    public static void write(Path path, Iterable<String[]> rows) throws IOException {
+        Map<String, String[]> merged = new HashMap<>();
+        for (String[] row : rows) {
+            String[] existing = merged.get(row[0]);
+            if (existing == null) {
+                merged.put(row[0], new String[]{row[0], row[1], row[2]});
+            } else {
+                existing[1] = row[1];
+                if (!row[2].isEmpty())
+                    existing[2] = row[2];
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(merged.size());
+        for (String[] row : merged.values())
+            entries.add(new Entry(utf8(row[0]), row[1], row[2]));
+        entries.sort((a, b) -> compare(a.key, b.key));
+
+        // Names repeat a lot (especially for parameters), so each distinct string is only stored once
+        Map<String, int[]> strings = new HashMap<>();
+        List<byte[]> data = new ArrayList<>();
+        int[] dataSize = {0};
+        int[][] table = new int[entries.size()][];
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int[] name = strings.computeIfAbsent(entry.name, value -> append(data, dataSize, utf8(value)));
+            int[] javadoc = strings.computeIfAbsent(entry.javadoc, value -> append(data, dataSize, utf8(value)));
+            int[] key = append(data, dataSize, entry.key);
+            table[i] = new int[]{key[0], key[1], name[0], name[1], javadoc[0], javadoc[1]};
+        }
+
+        // Tools may have the old file mapped, so it is replaced rather than truncated and rewritten
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(table.length);
+                for (int[] slots : table) {
+                    for (int slot : slots)
+                        out.writeInt(slot);
+                }
+                for (byte[] bytes : data)
+                    out.write(bytes);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the number of SRG names in this index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param srgName the SRG name
+     * @return whether the index contains an entry for the SRG name
+     */
+    public boolean contains(String srgName) {
+        return find(srgName) >= 0;
+    }
+
+    /**
+     * @param srgName the SRG name
+     * @return the Parchment name for the SRG name, or {@code null} if it is not in the index
+     */
+    @Nullable
+    public String getName(String srgName) {
+        int entry = find(srgName);
+        return entry < 0 ? null : readString(entry, 1);
+    }
+
+    /**
+     * @param srgName the SRG name
+     * @return the javadoc for the SRG name (which is empty if it has none), or {@code null} if it is not in the index
+     */
+    @Nullable
+    public String getJavadoc(String srgName) {
+        int entry = find(srgName);
+        return entry < 0 ? null : readString(entry, 2);
+    }
+
+    private int find(String srgName) {
+        byte[] key = utf8(srgName);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int entry, byte[] key) {
+        int base = HEADER_SIZE + entry * ENTRY_SIZE;
+        int offset = dataStart + buffer.getInt(base);
+        int length = buffer.getInt(base + 4);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0)
+                return cmp;
+        }
+        return length - key.length;
+    }
+
+    private String readString(int entry, int column) {
+        int base = HEADER_SIZE + entry * ENTRY_SIZE + column * 8;
+        int offset = dataStart + buffer.getInt(base);
+        int length = buffer.getInt(base + 4);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] append(List<byte[]> data, int[] dataSize, byte[] bytes) {
+        int offset = dataSize[0];
+        data.add(bytes);
+        dataSize[0] += bytes.length;
+        return new int[]{offset, bytes.length};
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0)
+                return cmp;
+        }
+        return a.length - b.length;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+        private final byte[] key;
+        private final String name;
+        private final String javadoc;
+
+        private Entry(byte[] key, String name, String javadoc) {
+            this.key = key;
+            this.name = name;
+            this.javadoc = javadoc;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import net.minecraftforge.srgutils.IMappingBuilder;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.minecraftforge.srgutils.IMappingFile.IClass;
+import net.minecraftforge.srgutils.IMappingFile.IField;
+import net.minecraftforge.srgutils.IMappingFile.IMethod;
+import net.minecraftforge.srgutils.IMappingFile.IPackage;
+import net.minecraftforge.srgutils.IMappingFile.IParameter;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a compact binary form of an {@link IMappingFile}, so chained mappings can be reused without
+ * parsing the text mappings they were generated from again.
+ * <p>
+ * All names, descriptors and metadata are stored once in a string table and referenced by index afterwards.
+ * Packages, classes, fields, methods, parameters and their metadata are preserved.
+ */
+final class BinaryMappingFile {
+    private static final int MAGIC = 0x4C424D46; // LBMF
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL_INDEX = -1;
+
+    private BinaryMappingFile() {
+    }
+
+    static void write(IMappingFile mappings, Path path) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(1 << 20);
+        try (DataOutputStream body = new DataOutputStream(bodyBytes)) {
+            body.writeInt(mappings.getPackages().size());
+            for (IPackage pkg : mappings.getPackages()) {
+                writeNames(body, strings, pkg.getOriginal(), pkg.getMapped());
+                writeMetadata(body, strings, pkg.getMetadata());
+            }
+
+            body.writeInt(mappings.getClasses().size());
+            for (IClass cls : mappings.getClasses()) {
+                writeNames(body, strings, cls.getOriginal(), cls.getMapped());
+                writeMetadata(body, strings, cls.getMetadata());
+
+                body.writeInt(cls.getFields().size());
+                for (IField field : cls.getFields()) {
+                    writeNames(body, strings, field.getOriginal(), field.getMapped());
+                    body.writeInt(strings.indexOf(field.getDescriptor()));
+                    writeMetadata(body, strings, field.getMetadata());
+                }
+
+                body.writeInt(cls.getMethods().size());
+                for (IMethod method : cls.getMethods()) {
+                    writeNames(body, strings, method.getOriginal(), method.getMapped());
+                    body.writeInt(strings.indexOf(method.getDescriptor()));
+                    writeMetadata(body, strings, method.getMetadata());
+
+                    body.writeInt(method.getParameters().size());
+                    for (IParameter param : method.getParameters()) {
+                        body.writeInt(param.getIndex());
+                        writeNames(body, strings, param.getOriginal(), param.getMapped());
+                        writeMetadata(body, strings, param.getMetadata());
+                    }
+                }
+            }
+        }
+
+        // The file is shared between concurrent builds, so it must never be seen half-written
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(strings.values.size());
+                for (String value : strings.values)
+                    out.writeUTF(value);
+                bodyBytes.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static IMappingFile read(Path path) throws IOException {
+        IMappingBuilder builder = IMappingBuilder.create("left", "right");
+        // Every counted element takes up at least one byte, so no valid count can be larger than the file
+        long maxCount = Files.size(path);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("File " + path + " is not a binary mapping file");
+            int version = in.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported binary mapping file version " + version + " in " + path);
+
+            String[] strings = new String[readCount(in, maxCount, path)];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = in.readUTF();
+
+            int packageCount = readCount(in, maxCount, path);
+            for (int i = 0; i < packageCount; i++) {
+                IMappingBuilder.IPackage pkg = builder.addPackage(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                int metaCount = readCount(in, maxCount, path);
+                for (int m = 0; m < metaCount; m++)
+                    pkg.meta(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+            }
+
+            int classCount = readCount(in, maxCount, path);
+            for (int i = 0; i < classCount; i++) {
+                IMappingBuilder.IClass cls = builder.addClass(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                int metaCount = readCount(in, maxCount, path);
+                for (int m = 0; m < metaCount; m++)
+                    cls.meta(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+
+                int fieldCount = readCount(in, maxCount, path);
+                for (int f = 0; f < fieldCount; f++) {
+                    IMappingBuilder.IField field = cls.field(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                    String descriptor = lookup(strings, in.readInt());
+                    if (descriptor != null)
+                        field.descriptor(descriptor);
+                    metaCount = readCount(in, maxCount, path);
+                    for (int m = 0; m < metaCount; m++)
+                        field.meta(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                }
+
+                int methodCount = readCount(in, maxCount, path);
+                for (int mt = 0; mt < methodCount; mt++) {
+                    String original = lookup(strings, in.readInt());
+                    String mapped = lookup(strings, in.readInt());
+                    IMappingBuilder.IMethod method = cls.method(lookup(strings, in.readInt()), original, mapped);
+                    metaCount = readCount(in, maxCount, path);
+                    for (int m = 0; m < metaCount; m++)
+                        method.meta(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+
+                    int paramCount = readCount(in, maxCount, path);
+                    for (int p = 0; p < paramCount; p++) {
+                        IMappingBuilder.IParameter param = method.parameter(in.readInt(), lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                        metaCount = readCount(in, maxCount, path);
+                        for (int m = 0; m < metaCount; m++)
+                            param.meta(lookup(strings, in.readInt()), lookup(strings, in.readInt()));
+                    }
+                }
+            }
+            return builder.build().getMap("left", "right");
+        } catch (RuntimeException e) {
+            // Bad string indices or names rejected by the builder
+            throw new IOException("Binary mapping file " + path + " is corrupt", e);
+        }
+    }
+
+    private static int readCount(DataInputStream in, long maxCount, Path path) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > maxCount)
+            throw new IOException("Binary mapping file " + path + " is corrupt, invalid element count " + count);
+        return count;
+    }
+
+    private static void writeNames(DataOutputStream out, StringTable strings, String original, String mapped) throws IOException {
+        out.writeInt(strings.indexOf(original));
+        out.writeInt(strings.indexOf(mapped));
+    }
+
+    private static void writeMetadata(DataOutputStream out, StringTable strings, Map<String, String> metadata) throws IOException {
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            out.writeInt(strings.indexOf(entry.getKey()));
+            out.writeInt(strings.indexOf(entry.getValue()));
+        }
+    }
+
+    @Nullable
+    private static String lookup(String[] strings, int index) {
+        return index == NULL_INDEX ? null : strings[index];
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(@Nullable String value) {
+            if (value == null)
+                return NULL_INDEX;
+            return indices.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
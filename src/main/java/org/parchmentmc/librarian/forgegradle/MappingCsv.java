@@ -0,0 +1,236 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@code searge,name,desc} mappings CSV file, built up row by row.
+ * <p>
+ * Fields are encoded as UTF-8 straight into a single growable buffer as they are appended, so adding a row does not
+ * allocate any strings or arrays once the buffer has grown to its final size. Quoting is applied when the CSV is
+ * written out, which keeps the raw values available for the lookup index.
+ * <p>
+ * Each field is built with any number of {@code append} calls followed by {@link #endField()}, and every row has
+ * exactly three fields.
+ */
+public class MappingCsv {
+    public static final int COLUMNS = 3;
+    private static final byte[] HEADER = "searge,name,desc\n".getBytes(StandardCharsets.UTF_8);
+
+    private byte[] data = new byte[1 << 14];
+    private int length;
+    private int[] fieldEnds = new int[COLUMNS * 1024];
+    private int fieldCount;
+
+    public MappingCsv append(CharSequence value) {
+        return append(value, 0, value.length());
+    }
+
+    public MappingCsv append(CharSequence value, int start, int end) {
+        // Worst case is 3 bytes per char, as surrogate pairs take up 4 bytes for 2 chars
+        ensureCapacity((end - start) * 3);
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                data[length++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                encodeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else if (Character.isSurrogate(c)) {
+                data[length++] = '?'; // Unpaired surrogate, same replacement as String#getBytes
+            } else {
+                encodeCodePoint(c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends an internal class or package name ({@code net/minecraft/world/level/Level})
+     * in its dotted form ({@code net.minecraft.world.level.Level}).
+     */
+    public MappingCsv appendDotted(CharSequence internalName) {
+        int start = length;
+        append(internalName);
+        for (int i = start; i < length; i++) {
+            if (data[i] == '/')
+                data[i] = '.';
+        }
+        return this;
+    }
+
+    public MappingCsv append(char c) {
+        ensureCapacity(3);
+        if (c < 0x80) {
+            data[length++] = (byte) c;
+        } else if (Character.isSurrogate(c)) {
+            data[length++] = '?';
+        } else {
+            encodeCodePoint(c);
+        }
+        return this;
+    }
+
+    public MappingCsv append(int value) {
+        ensureCapacity(11);
+        long remaining = value;
+        if (remaining < 0) {
+            data[length++] = '-';
+            remaining = -remaining;
+        }
+        int start = length;
+        do {
+            data[length++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        // Digits were written least significant first
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte tmp = data[i];
+            data[i] = data[j];
+            data[j] = tmp;
+        }
+        return this;
+    }
+
+    public MappingCsv endField() {
+        if (fieldCount == fieldEnds.length)
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        fieldEnds[fieldCount++] = length;
+        return this;
+    }
+
+    public MappingCsv field(CharSequence value) {
+        return append(value).endField();
+    }
+
+    /**
+     * @return the number of complete rows
+     */
+    public int size() {
+        return fieldCount / COLUMNS;
+    }
+
+    public boolean isEmpty() {
+        return fieldCount < COLUMNS;
+    }
+
+    public void clear() {
+        length = 0;
+        fieldCount = 0;
+    }
+
+    public String get(int row, int column) {
+        int field = row * COLUMNS + column;
+        if (column < 0 || column >= COLUMNS || field >= size() * COLUMNS)
+            throw new IndexOutOfBoundsException("Row " + row + ", column " + column);
+        int start = field == 0 ? 0 : fieldEnds[field - 1];
+        return new String(data, start, fieldEnds[field] - start, StandardCharsets.UTF_8);
+    }
+
+    public String[] getRow(int row) {
+        return new String[]{get(row, 0), get(row, 1), get(row, 2)};
+    }
+
+    /**
+     * @return a view of the rows, which decodes each row when it is accessed
+     */
+    public List<String[]> rows() {
+        return new AbstractList<String[]>() {
+            @Override
+            public String[] get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return MappingCsv.this.size();
+            }
+        };
+    }
+
+    /**
+     * Writes the header and all complete rows, quoting fields where needed, with {@code \n} line endings.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(HEADER);
+        int rowFields = size() * COLUMNS;
+        int start = 0;
+        for (int field = 0; field < rowFields; field++) {
+            int end = fieldEnds[field];
+            writeField(out, start, end);
+            out.write(field % COLUMNS == COLUMNS - 1 ? '\n' : ',');
+            start = end;
+        }
+    }
+
+    private void writeField(OutputStream out, int start, int end) throws IOException {
+        // UTF-8 never uses ASCII bytes inside multi-byte sequences, so checking bytes is enough
+        boolean quote = false;
+        for (int i = start; i < end && !quote; i++) {
+            byte b = data[i];
+            quote = b == ',' || b == '"' || b == '\r' || b == '\n';
+        }
+        if (!quote) {
+            out.write(data, start, end - start);
+            return;
+        }
+        out.write('"');
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] == '"') {
+                // Write up to and including the quote, then leave it to be written again as the start of the next run
+                out.write(data, from, i + 1 - from);
+                from = i;
+            }
+        }
+        out.write(data, from, end - from);
+        out.write('"');
+    }
+
+    private void encodeCodePoint(int codePoint) {
+        if (codePoint < 0x800) {
+            data[length++] = (byte) (0xC0 | (codePoint >> 6));
+            data[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            data[length++] = (byte) (0xE0 | (codePoint >> 12));
+            data[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            data[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            data[length++] = (byte) (0xF0 | (codePoint >> 18));
+            data[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            data[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            data[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length)
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+    }
+}
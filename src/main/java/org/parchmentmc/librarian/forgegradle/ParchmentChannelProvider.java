@@ -23,17 +23,14 @@
 
 package org.parchmentmc.librarian.forgegradle;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Multimaps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import de.siegmar.fastcsv.writer.CsvWriter;
-import de.siegmar.fastcsv.writer.LineDelimiter;
 import net.minecraftforge.gradle.common.config.MCPConfigV2;
 import net.minecraftforge.gradle.common.util.HashFunction;
 import net.minecraftforge.gradle.common.util.HashStore;
@@ -62,13 +59,16 @@ import org.parchmentmc.feather.mapping.MappingDataContainer.ParameterData;
 import org.parchmentmc.feather.mapping.VersionedMappingDataContainer;
 import org.parchmentmc.feather.named.Named;
 import org.parchmentmc.feather.util.SimpleVersion;
+import org.parchmentmc.librarian.ParchmentMappingIndex;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -79,6 +79,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -96,23 +97,40 @@ public class ParchmentChannelProvider implements ChannelProvider {
             .registerTypeAdapter(Named.class, new NamedAdapter())
             .registerTypeAdapter(OffsetDateTime.class, new OffsetDateTimeAdapter())
             .create();
+    /**
+     * @deprecated No longer used, see {@link #isLettersOnly(String)}
+     */
+    @Deprecated
     protected static final Pattern LETTERS_ONLY_PATTERN = Pattern.compile("[a-zA-Z]+");
     protected static final Pattern LINE_PATTERN = Pattern.compile("\r?\n");
     protected static final Pattern SPACE_PATTERN = Pattern.compile(" ");
+    /**
+     * @deprecated No longer used, descriptors are walked directly in {@link #convertJvmIndexToSrgIndex(IMethod, int)}
+     */
+    @Deprecated
     protected static final Pattern DESCRIPTOR_OBJECT_PATTERN = Pattern.compile("L.+?;");
+    /**
+     * @deprecated No longer used, descriptors are walked directly in {@link #convertJvmIndexToSrgIndex(IMethod, int)}
+     */
+    @Deprecated
     protected static final Pattern DESCRIPTOR_ARRAY_PATTERN = Pattern.compile("\\[+.");
     protected static final String SRG_CLASS = "net/minecraft/src/C_";
+    protected static final String CHANNEL = "parchment";
+    protected static final String NO_DOCS_CHANNEL = "parchment_nodoc";
 
     @Nonnull
     @Override
     public Set<String> getChannels() {
-        return ImmutableSet.of("parchment");
+        return ImmutableSet.of(CHANNEL, NO_DOCS_CHANNEL);
     }
 
     @Nullable
     @Override
     public File getMappingsFile(MCPRepo mcpRepo, Project project, String channel, String mappingVersion) throws IOException {
         ParchmentMappingVersion version = ParchmentMappingVersion.of(mappingVersion);
+        // The nodoc channel only has names, which is all that is needed for recompilation
+        // The export is still read in full, but javadocs are never rendered or written
+        boolean javadocs = !NO_DOCS_CHANNEL.equals(channel);
 
         File client = MavenArtifactDownloader.generate(project, "net.minecraft:client:" + version.mcVersion() + ":mappings@txt", true);
         if (client == null)
@@ -124,47 +142,50 @@ public class ParchmentChannelProvider implements ChannelProvider {
 
         MCPConfigV2 config = MCPConfigV2.getFromArchive(mcp);
 
-        IMappingFile obfToSrg = findObfToSrg(mcp, config);
-        if (obfToSrg == null)
-            throw new IllegalStateException("Could not create " + version.mcpVersion() + " parchment mappings due to missing MCP's tsrg");
-
         File dep = getParchmentZip(project, version);
 
         String queryMcVersionPrefix = version.queryMcVersion().equals(version.mcVersion()) ? "" : version.queryMcVersion() + "-";
-        File mappings = cacheParchment(project, queryMcVersionPrefix, version.mcpVersion(), version.parchmentVersion(), "zip");
+        String extPrefix = javadocs ? "" : "nodoc.";
+        File mappings = cacheParchment(project, queryMcVersionPrefix, version.mcpVersion(), version.parchmentVersion(), extPrefix + "zip");
+        File index = cacheParchment(project, queryMcVersionPrefix, version.mcpVersion(), version.parchmentVersion(), extPrefix + "idx");
         HashStore cache = new HashStore()
-                .load(cacheParchment(project, queryMcVersionPrefix, version.mcpVersion(), version.parchmentVersion(), "zip.input"))
+                .load(cacheParchment(project, queryMcVersionPrefix, version.mcpVersion(), version.parchmentVersion(), extPrefix + "zip.input"))
                 .add("mcp", mcp)
                 .add("mcversion", version.queryMcVersion())
                 .add("mappings", dep)
-                .add("codever", "4");
+                .add("codever", "5");
 
+        // The index is not checked here, as failing to write it should not make every later build regenerate the zip
         if (cache.isSame() && mappings.exists())
             return mappings;
 
         VersionedMappingDataContainer mappingData = extractMappingData(dep);
 
-        IMappingFile mojToObf = IMappingFile.load(client);
-        IMappingFile mojToSrg = genMojToSrg(obfToSrg, mojToObf);
+        IMappingFile mojToSrg = getMojToSrg(project, version, client, mcp, config);
         IMappingFile srgToMoj = mojToSrg.reverse();
         ListMultimap<String, ConstructorData> constructorMap = getConstructorDataMap(mcp, config);
 
         // All the CSV data holders
-        String[] header = {"searge", "name", "desc"};
-        List<String[]> packages = Lists.<String[]>newArrayList(header);
-        List<String[]> classes = Lists.<String[]>newArrayList(header);
-        List<String[]> fields = Lists.<String[]>newArrayList(header);
-        List<String[]> methods = Lists.<String[]>newArrayList(header);
-        List<String[]> parameters = Lists.<String[]>newArrayList(header);
-
-        mojToSrg.getPackages().forEach(srgPackage -> {
-            PackageData packageData = mappingData.getPackage(srgPackage.getOriginal());
-            populateMappings(packages, null, srgPackage, packageData != null ? packageData.getJavadoc() : null);
-        });
+        MappingCsv packages = new MappingCsv();
+        MappingCsv classes = new MappingCsv();
+        MappingCsv fields = new MappingCsv();
+        MappingCsv methods = new MappingCsv();
+        MappingCsv parameters = new MappingCsv();
+        // Reused for every method's javadoc, as it is only complete once the parameters have been processed
+        StringBuilder mdJavadoc = javadocs ? new StringBuilder() : null;
+
+        // Packages and classes are only ever written for their javadocs
+        if (javadocs) {
+            mojToSrg.getPackages().forEach(srgPackage -> {
+                PackageData packageData = mappingData.getPackage(srgPackage.getOriginal());
+                populateMappings(packages, null, srgPackage, packageData != null ? packageData.getJavadoc() : null);
+            });
+        }
 
         mojToSrg.getClasses().forEach(srgClass -> {
             ClassData classData = mappingData.getClass(srgClass.getOriginal());
-            populateMappings(classes, srgClass, srgClass, classData != null ? classData.getJavadoc() : null);
+            if (javadocs)
+                populateMappings(classes, srgClass, srgClass, classData != null ? classData.getJavadoc() : null);
 
             // This is only used on non-official exports (1.16 and lower)
             if (classData != null && constructorMap != null) {
@@ -174,22 +195,31 @@ public class ParchmentChannelProvider implements ChannelProvider {
                     if (methodData == null)
                         return;
 
-                    StringBuilder mdJavadoc = new StringBuilder(getJavadocs(methodData.getJavadoc()));
+                    if (mdJavadoc != null) {
+                        mdJavadoc.setLength(0);
+                        appendJavadocs(mdJavadoc, methodData.getJavadoc());
+                    }
                     populateParameters(config.isOfficial(), parameters, data.id, null, methodData, mdJavadoc);
-                    populateMappings(methods, srgClass, null, mdJavadoc.toString(), "<init>", "<init>", false);
+                    // Constructors are never renamed, so they are only written for their javadocs
+                    if (mdJavadoc != null)
+                        populateMappings(methods, srgClass, null, mdJavadoc, "<init>", "<init>", false);
                 });
             }
 
             srgClass.getFields().forEach(srgField -> {
                 FieldData fieldData = classData != null ? classData.getField(srgField.getOriginal()) : null;
-                populateMappings(fields, srgClass, srgField, fieldData != null ? fieldData.getJavadoc() : null);
+                populateMappings(fields, srgClass, srgField, javadocs && fieldData != null ? fieldData.getJavadoc() : null);
             });
 
             srgClass.getMethods().forEach(srgMethod -> {
                 MethodData methodData = classData != null ? classData.getMethod(srgMethod.getOriginal(), srgMethod.getDescriptor()) : null;
-                StringBuilder mdJavadoc = methodData != null ? new StringBuilder(getJavadocs(methodData.getJavadoc())) : new StringBuilder();
+                if (mdJavadoc != null) {
+                    mdJavadoc.setLength(0);
+                    if (methodData != null)
+                        appendJavadocs(mdJavadoc, methodData.getJavadoc());
+                }
                 populateParameters(config.isOfficial(), parameters, null, srgMethod, methodData, mdJavadoc);
-                populateMappings(methods, srgClass, srgMethod, mdJavadoc.toString());
+                populateMappings(methods, srgClass, srgMethod, mdJavadoc);
             });
         });
 
@@ -210,62 +240,164 @@ public class ParchmentChannelProvider implements ChannelProvider {
             throw new RuntimeException(e);
         }
 
+        // Lookup index for tooling which needs fast SRG queries without unpacking the zip; see ParchmentMappingIndex
+        // A tool may still have the old index mapped (which prevents replacing it on Windows), so this must never fail the build
+        try {
+            ParchmentMappingIndex.write(index.toPath(), Iterables.concat(classes.rows(), fields.rows(),
+                    methods.rows(), parameters.rows(), packages.rows()));
+        } catch (IOException e) {
+            project.getLogger().warn("Failed to write Parchment mapping index " + index + ", it may be in use", e);
+        }
+
         cache.save();
         Utils.updateHash(mappings, HashFunction.SHA1);
 
         return mappings;
     }
 
+    /**
+     * Gets the chained mojmap to SRG mappings for the given version, using the binary copy stored in the cache
+     * when the ProGuard mappings and MCP config it was generated from have not changed.
+     * This only depends on the MC and MCP versions, so it is shared between all Parchment versions on the same base.
+     */
+    protected IMappingFile getMojToSrg(Project project, ParchmentMappingVersion version, File client, File mcp, MCPConfigV2 config) throws IOException {
+        File cached = getCache(project, "mojtosrg", version.mcpVersion(), "mojtosrg-" + version.mcpVersion() + ".bin");
+        HashStore cache = new HashStore()
+                .load(getCache(project, "mojtosrg", version.mcpVersion(), "mojtosrg-" + version.mcpVersion() + ".bin.input"))
+                .add("client", client)
+                .add("mcp", mcp)
+                .add("codever", "1");
+
+        if (cache.isSame() && cached.exists()) {
+            try {
+                return BinaryMappingFile.read(cached.toPath());
+            } catch (IOException e) {
+                project.getLogger().warn("Failed to read cached mojmap to SRG mappings from " + cached + ", regenerating", e);
+            }
+        }
+
+        IMappingFile obfToSrg = findObfToSrg(mcp, config);
+        if (obfToSrg == null)
+            throw new IllegalStateException("Could not create " + version.mcpVersion() + " parchment mappings due to missing MCP's tsrg");
+
+        IMappingFile mojToObf = IMappingFile.load(client);
+        IMappingFile mojToSrg = genMojToSrg(obfToSrg, mojToObf);
+
+        if (!cached.getParentFile().exists() && !cached.getParentFile().mkdirs())
+            throw new IOException("Failed to create directory " + cached.getParentFile().getAbsolutePath());
+
+        BinaryMappingFile.write(mojToSrg, cached.toPath());
+        cache.save();
+
+        return mojToSrg;
+    }
+
     protected IMappingFile genMojToSrg(IMappingFile obfToSrg, IMappingFile mojToObf) {
         // We remap it this way to preserve parameters and eliminate SRG classnames at the same time
         return obfToSrg.reverse().chain(mojToObf.reverse()).reverse();
     }
 
-    protected void populateParameters(boolean isOfficialExport, List<String[]> parameters, String constructorId, IMethod srgMethod, MethodData methodData, StringBuilder mdJavadoc) {
+    /**
+     * Adds the SRG parameter names for the method to the parameter mappings, and appends the parameter javadocs
+     * to the method javadoc if it is not {@code null}.
+     */
+    protected void populateParameters(boolean isOfficialExport, MappingCsv parameters, String constructorId, IMethod srgMethod, MethodData methodData, @Nullable StringBuilder mdJavadoc) {
         if (methodData == null || methodData.getParameters().isEmpty())
             return;
 
-        List<IParameter> srgParams = srgMethod == null ? ImmutableList.of() : ImmutableList.copyOf(srgMethod.getParameters());
-        List<ParameterData> methodParams = ImmutableList.copyOf(methodData.getParameters());
-
         if (isOfficialExport && srgMethod == null)
             return;
 
-        for (ParameterData parameter : methodParams) {
-            String srgParam;
+        String srgId = null;
+        if (!isOfficialExport && constructorId == null) {
+            if (srgMethod == null)
+                return;
+            srgId = getSrgId(srgMethod.getMapped());
+            if (isLettersOnly(srgId))
+                return; // This means it's a mapped parameter of a functional interface method, and we can't use it.
+        }
+
+        for (ParameterData parameter : methodData.getParameters()) {
+            String paramName = parameter.getName();
+            // Only known up front for official exports, older ones have it generated straight into the CSV
+            String srgParam = null;
             // official export == 1.17+
             if (isOfficialExport) {
-                int srgIdx = convertJvmIndexToSrgIndex(srgMethod, parameter.getIndex());
-                if (srgIdx >= srgParams.size()) {
+                IParameter srgParameter = getParameter(srgMethod.getParameters(), convertJvmIndexToSrgIndex(srgMethod, parameter.getIndex()));
+                if (srgParameter == null) {
                     // Something went wrong; cross-version mappings use can cause this.
                     // Skip this parameter.
                     continue;
                 }
-                srgParam = srgParams.get(srgIdx).getMapped();
-            } else if (constructorId != null) {
-                srgParam = String.format("p_i%s_%d_", constructorId, parameter.getIndex());
-            } else {
-                if (srgMethod == null)
-                    continue;
-                String srgId = srgMethod.getMapped().indexOf('_') == -1
-                        ? srgMethod.getMapped()
-                        : srgMethod.getMapped().split("_")[1];
-                if (LETTERS_ONLY_PATTERN.matcher(srgId).matches())
-                    continue; // This means it's a mapped parameter of a functional interface method, and we can't use it.
-                srgParam = String.format("p_%s_%d_", srgId, parameter.getIndex());
+                srgParam = srgParameter.getMapped();
+                // Canonical record constructors have a special exception in MCPConfig data where the parameter names use their matching field name to support recompilation.
+                // Remapping these special field parameter names is a mistake. See https://github.com/ParchmentMC/Librarian/issues/5
+                // So to fix it, we filter out any parameter names that start with "f_" aka field.
+                if (paramName != null && !srgParam.startsWith("f_"))
+                    parameters.field(srgParam).field(paramName).field("");
+            } else if (paramName != null) {
+                // p_i{constructor id}_{index}_ or p_{method id}_{index}_
+                parameters.append(constructorId != null ? "p_i" : "p_").append(constructorId != null ? constructorId : srgId)
+                        .append('_').append(parameter.getIndex()).append('_').endField()
+                        .field(paramName).field("");
             }
-            String paramName = parameter.getName();
-            // Canonical record constructors have a special exception in MCPConfig data where the parameter names use their matching field name to support recompilation.
-            // Remapping these special field parameter names is a mistake. See https://github.com/ParchmentMC/Librarian/issues/5
-            // So to fix it, we filter out any parameter names that start with "f_" aka field.
-            if (paramName != null && !srgParam.startsWith("f_"))
-                parameters.add(new String[]{srgParam, paramName, ""});
+            if (mdJavadoc == null)
+                continue;
             String paramJavadoc = getJavadocs(parameter.getJavadoc());
-            if (!paramJavadoc.isEmpty())
-                mdJavadoc.append("\\n@param ").append(paramName != null ? paramName : srgParam).append(' ').append(paramJavadoc);
+            if (paramJavadoc.isEmpty())
+                continue;
+            mdJavadoc.append("\\n@param ");
+            if (paramName != null) {
+                mdJavadoc.append(paramName);
+            } else if (srgParam != null) {
+                mdJavadoc.append(srgParam);
+            } else {
+                mdJavadoc.append(constructorId != null ? "p_i" : "p_").append(constructorId != null ? constructorId : srgId)
+                        .append('_').append(parameter.getIndex()).append('_');
+            }
+            mdJavadoc.append(' ').append(paramJavadoc);
         }
     }
 
+    /**
+     * Gets the id of a pre-1.17 SRG name, which is the part between the first and second underscore
+     * (e.g. {@code 12345} for {@code func_12345_a}), or the whole name if it has no underscore.
+     */
+    protected static String getSrgId(String srgName) {
+        int start = srgName.indexOf('_');
+        if (start == -1)
+            return srgName;
+        int end = srgName.indexOf('_', start + 1);
+        return srgName.substring(start + 1, end == -1 ? srgName.length() : end);
+    }
+
+    protected static boolean isLettersOnly(String value) {
+        if (value.isEmpty())
+            return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z'))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the parameter at the given position of the SRG method's parameters without copying them,
+     * or {@code null} if there are not enough parameters.
+     */
+    @Nullable
+    protected static IParameter getParameter(Collection<? extends IParameter> srgParams, int srgIdx) {
+        if (srgIdx >= srgParams.size())
+            return null;
+        if (srgParams instanceof List)
+            return ((List<? extends IParameter>) srgParams).get(srgIdx);
+        Iterator<? extends IParameter> iterator = srgParams.iterator();
+        for (int i = 0; i < srgIdx; i++)
+            iterator.next();
+        return iterator.next();
+    }
+
     protected File getParchmentZip(Project project, ParchmentMappingVersion version) {
         String artifact = "org.parchmentmc.data:parchment-" + version.queryMcVersion() + ":" + version.parchmentVersion() + ":checked@zip";
         File dep = getDependency(project, artifact);
@@ -328,33 +460,96 @@ public class ParchmentChannelProvider implements ChannelProvider {
         return getCache(project, "org", "parchmentmc", "data", prefix, mappingsVersion, prefix + '-' + mappingsVersion + '.' + ext);
     }
 
-    protected void populateMappings(List<String[]> mappings, IClass srgClass, INode srgNode, Object javadoc) {
-        String desc = getJavadocs(javadoc);
+    protected void populateMappings(MappingCsv mappings, IClass srgClass, INode srgNode, Object javadoc) {
+        boolean hasDesc = hasJavadocs(javadoc);
         if (srgNode instanceof IPackage || srgNode instanceof IClass) {
+            // TODO fix InstallerTools so that we don't have to expand the csv size for no reason
+            if (!hasDesc)
+                return;
             boolean isSrgClass = srgNode.getMapped().startsWith(SRG_CLASS);
             // If it's a srg classname then it means we should always use the mojmap classname
-            String name = (isSrgClass ? srgNode.getOriginal() : srgNode.getMapped()).replace('/', '.');
-            // TODO fix InstallerTools so that we don't have to expand the csv size for no reason
-            if (!desc.isEmpty())
-                mappings.add(new String[]{name, name, desc});
+            String name = isSrgClass ? srgNode.getOriginal() : srgNode.getMapped();
+            mappings.appendDotted(name).endField().appendDotted(name).endField();
+            appendJavadocs(mappings, javadoc).endField();
             return;
         }
         String srgName = srgNode.getMapped();
         String mojName = srgNode.getOriginal();
         boolean isSrg = srgName.startsWith("p_") || srgName.startsWith("func_") || srgName.startsWith("m_") || srgName.startsWith("field_") || srgName.startsWith("f_");
-        populateMappings(mappings, srgClass, srgNode, desc, srgName, mojName, isSrg);
+        if (appendNames(mappings, srgClass, srgNode, hasDesc, srgName, mojName, isSrg))
+            appendJavadocs(mappings, javadoc).endField();
     }
 
-    protected void populateMappings(List<String[]> mappings, IClass srgClass, INode srgNode, String desc, String srgName, String mojName, boolean isSrg) {
+    protected void populateMappings(MappingCsv mappings, IClass srgClass, INode srgNode, CharSequence desc, String srgName, String mojName, boolean isSrg) {
+        if (appendNames(mappings, srgClass, srgNode, desc.length() > 0, srgName, mojName, isSrg))
+            mappings.field(desc);
+    }
+
+    /**
+     * Appends the SRG and mojmap names of a member if its row should be written.
+     *
+     * @return whether the names were appended, in which case the javadoc must be appended to complete the row
+     */
+    private boolean appendNames(MappingCsv mappings, IClass srgClass, INode srgNode, boolean hasDesc, String srgName, String mojName, boolean isSrg) {
+        // Only add to the mappings list if it is mapped or has javadocs
+        if (!(isSrg && !srgName.equals(mojName)) && !hasDesc)
+            return false;
         // If it's not a srg id and has javadocs, we need to add the class to the beginning as it is a special method/field of some kind
-        if (!isSrg && !desc.isEmpty() && (srgNode instanceof IMethod || srgNode instanceof IField || srgName.equals("<init>"))) {
+        if (!isSrg && hasDesc && (srgNode instanceof IMethod || srgNode instanceof IField || srgName.equals("<init>"))) {
             boolean isSrgClass = srgClass.getMapped().startsWith(SRG_CLASS);
             // If it's a srg classname then it means we should always use the mojmap classname
-            srgName = (isSrgClass ? srgClass.getOriginal() : srgClass.getMapped()).replace('/', '.') + '#' + srgName;
+            mappings.appendDotted(isSrgClass ? srgClass.getOriginal() : srgClass.getMapped()).append('#');
         }
-        // Only add to the mappings list if it is mapped or has javadocs
-        if ((isSrg && !srgName.equals(mojName)) || !desc.isEmpty())
-            mappings.add(new String[]{srgName, mojName, desc});
+        mappings.field(srgName).field(mojName);
+        return true;
+    }
+
+    /**
+     * Checks whether {@link #getJavadocs(Object)} would return a non-empty string, without building it.
+     */
+    protected boolean hasJavadocs(Object javadoc) {
+        if (javadoc instanceof CharSequence)
+            return ((CharSequence) javadoc).length() > 0;
+        if (!(javadoc instanceof List))
+            return false;
+        List<?> list = (List<?>) javadoc;
+        return list.size() > 1 || (list.size() == 1 && String.valueOf(list.get(0)).length() > 0);
+    }
+
+    /**
+     * Appends the javadoc in the same form as {@link #getJavadocs(Object)}, without building an intermediate string.
+     */
+    protected MappingCsv appendJavadocs(MappingCsv mappings, Object javadoc) {
+        if (javadoc instanceof CharSequence)
+            return mappings.append((CharSequence) javadoc);
+        if (!(javadoc instanceof List))
+            return mappings;
+        List<?> list = (List<?>) javadoc;
+        int size = list.size();
+        for (int i = 0; i < size; i++) {
+            if (i != 0)
+                mappings.append("\\n");
+            mappings.append(String.valueOf(list.get(i)));
+        }
+        return mappings;
+    }
+
+    /**
+     * Appends the javadoc in the same form as {@link #getJavadocs(Object)}, without building an intermediate string.
+     */
+    protected StringBuilder appendJavadocs(StringBuilder sb, Object javadoc) {
+        if (javadoc instanceof CharSequence)
+            return sb.append((CharSequence) javadoc);
+        if (!(javadoc instanceof List))
+            return sb;
+        List<?> list = (List<?>) javadoc;
+        int size = list.size();
+        for (int i = 0; i < size; i++) {
+            if (i != 0)
+                sb.append("\\n");
+            sb.append(list.get(i));
+        }
+        return sb;
     }
 
     @Nonnull
@@ -366,14 +561,11 @@ public class ParchmentChannelProvider implements ChannelProvider {
         if (!(javadoc instanceof List))
             return "";
         List<?> list = (List<?>) javadoc;
-        StringBuilder sb = new StringBuilder();
-        int size = list.size();
-        for (int i = 0; i < size; i++) {
-            sb.append(list.get(i));
-            if (i != size - 1)
-                sb.append("\\n");
-        }
-        return sb.toString();
+        if (list.isEmpty())
+            return "";
+        if (list.size() == 1)
+            return String.valueOf(list.get(0));
+        return appendJavadocs(new StringBuilder(), javadoc).toString();
     }
 
     protected IMappingFile findObfToSrg(File mcp, MCPConfigV2 config) throws IOException {
@@ -400,31 +592,37 @@ public class ParchmentChannelProvider implements ChannelProvider {
      * to a SRG parameter index using the SRG method data.
      */
     protected int convertJvmIndexToSrgIndex(IMethod srgMethod, int jvmIndex) {
-        String args = srgMethod.getDescriptor().substring(1, srgMethod.getDescriptor().lastIndexOf(')'));
-        args = DESCRIPTOR_OBJECT_PATTERN.matcher(args).replaceAll("L");
-        // Arrays are references always with a size of one regardless of the array type
-        args = DESCRIPTOR_ARRAY_PATTERN.matcher(args).replaceAll("L");
+        String descriptor = srgMethod.getDescriptor();
+        int pos = 1; // Skip the opening parenthesis
         // Non-static methods have an implicit this argument
         int currentIdx = srgMethod.getMetadata().containsKey("is_static") ? 0 : 1;
         int srgIdx = 0;
         while (currentIdx < jvmIndex) {
-            // long and double increase the jvm index by 2
-            if (srgIdx < args.length() && (args.charAt(srgIdx) == 'J' || args.charAt(srgIdx) == 'D')) {
-                currentIdx += 2;
-            } else {
+            char type = pos < descriptor.length() ? descriptor.charAt(pos) : ')';
+            if (type == ')') {
                 currentIdx++;
+            } else {
+                // long and double increase the jvm index by 2; arrays are references always with a size of one regardless of the array type
+                currentIdx += type == 'J' || type == 'D' ? 2 : 1;
+                pos = skipDescriptorType(descriptor, pos);
             }
             srgIdx++;
         }
         return srgIdx;
     }
+
+    private static int skipDescriptorType(String descriptor, int pos) {
+        while (descriptor.charAt(pos) == '[')
+            pos++;
+        return descriptor.charAt(pos) == 'L' ? descriptor.indexOf(';', pos) + 1 : pos + 1;
+    }
     
-    protected void writeCsv(String name, List<String[]> mappings, Path rootPath) throws IOException {
-        if (mappings.size() <= 1)
+    protected void writeCsv(String name, MappingCsv mappings, Path rootPath) throws IOException {
+        if (mappings.isEmpty())
             return;
         Path csvPath = rootPath.resolve(name);
-        try (CsvWriter writer = CsvWriter.builder().lineDelimiter(LineDelimiter.LF).build(csvPath, StandardCharsets.UTF_8)) {
-            mappings.forEach(writer::writeRow);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(csvPath))) {
+            mappings.writeTo(out);
         }
         Files.setLastModifiedTime(csvPath, FileTime.fromMillis(Utils.ZIPTIME));
     }
@@ -0,0 +1,143 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParchmentMappingIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLookupMatchesWrittenRows() throws IOException {
+        Path path = tempDir.resolve("mappings.idx");
+        ParchmentMappingIndex.write(path, Arrays.asList(
+                new String[]{"m_46467_", "getGameTime", "Gets the game time.\\n@param level the level"},
+                new String[]{"p_46468_0_", "level", ""},
+                new String[]{"f_46443_", "isClientSide", ""},
+                new String[]{"net.minecraft.world.level.Level", "net.minecraft.world.level.Level", "A level."},
+                new String[]{"net.minecraft.world.level.Level#<init>", "<init>", "Creates a level."},
+                new String[]{"p_46469_0_", "level", "The level with \u00e9t\u00e9 in it"}
+        ));
+
+        ParchmentMappingIndex index = ParchmentMappingIndex.open(path);
+        assertEquals(6, index.size());
+
+        assertEquals("getGameTime", index.getName("m_46467_"));
+        assertEquals("Gets the game time.\\n@param level the level", index.getJavadoc("m_46467_"));
+        assertEquals("level", index.getName("p_46468_0_"));
+        assertEquals("", index.getJavadoc("p_46468_0_"));
+        assertEquals("isClientSide", index.getName("f_46443_"));
+        assertEquals("A level.", index.getJavadoc("net.minecraft.world.level.Level"));
+        assertEquals("<init>", index.getName("net.minecraft.world.level.Level#<init>"));
+        assertEquals("The level with \u00e9t\u00e9 in it", index.getJavadoc("p_46469_0_"));
+
+        assertTrue(index.contains("f_46443_"));
+        assertFalse(index.contains("f_46443"));
+        assertNull(index.getName("m_00000_"));
+        assertNull(index.getJavadoc("zzz"));
+    }
+
+    @Test
+    public void testDuplicatesMergeLikeForgeGradle() throws IOException {
+        // Overriding methods share an SRG name, so the same key can appear several times in methods.csv
+        Path path = tempDir.resolve("mappings.idx");
+        ParchmentMappingIndex.write(path, Arrays.asList(
+                new String[]{"m_1_", "tick", "Ticks the entity."},
+                new String[]{"m_1_", "tick", ""},
+                new String[]{"m_2_", "getName", ""},
+                new String[]{"m_2_", "getName", "Gets the name of the player."},
+                new String[]{"m_3_", "first", "First javadoc."},
+                new String[]{"m_3_", "second", "Second javadoc."}
+        ));
+
+        ParchmentMappingIndex index = ParchmentMappingIndex.open(path);
+        assertEquals(3, index.size());
+        // An empty javadoc does not replace an earlier one
+        assertEquals("Ticks the entity.", index.getJavadoc("m_1_"));
+        assertEquals("Gets the name of the player.", index.getJavadoc("m_2_"));
+        // Otherwise the last row wins
+        assertEquals("second", index.getName("m_3_"));
+        assertEquals("Second javadoc.", index.getJavadoc("m_3_"));
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        Path path = tempDir.resolve("empty.idx");
+        ParchmentMappingIndex.write(path, Arrays.asList());
+
+        ParchmentMappingIndex index = ParchmentMappingIndex.open(path);
+        assertEquals(0, index.size());
+        assertNull(index.getName("m_46467_"));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path path = tempDir.resolve("other.idx");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        assertThrows(IOException.class, () -> ParchmentMappingIndex.open(path));
+    }
+
+    @Test
+    public void testRejectsOutOfRangeEntries() throws IOException {
+        Path path = tempDir.resolve("corrupt.idx");
+        ByteBuffer buffer = ByteBuffer.allocate(12 + 24 + 4);
+        buffer.putInt(0x4C504D49).putInt(1).putInt(1);
+        buffer.putInt(0).putInt(4); // Key
+        buffer.putInt(0).putInt(4); // Name
+        buffer.putInt(2).putInt(100); // Javadoc past the end of the file
+        buffer.put("m_1_".getBytes(StandardCharsets.UTF_8));
+        Files.write(path, buffer.array());
+
+        assertThrows(IOException.class, () -> ParchmentMappingIndex.open(path));
+    }
+
+    @Test
+    public void testRewriteReplacesFile() throws IOException {
+        Path path = tempDir.resolve("mappings.idx");
+        ParchmentMappingIndex.write(path, Arrays.<String[]>asList(new String[]{"m_1_", "first", ""}));
+        ParchmentMappingIndex.write(path, Arrays.<String[]>asList(new String[]{"m_1_", "second", ""}));
+
+        assertEquals("second", ParchmentMappingIndex.open(path).getName("m_1_"));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Temporary files were left behind");
+        }
+    }
+}
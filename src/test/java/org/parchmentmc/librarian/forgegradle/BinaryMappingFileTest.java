@@ -0,0 +1,151 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import net.minecraftforge.srgutils.IMappingBuilder;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.minecraftforge.srgutils.IMappingFile.IClass;
+import net.minecraftforge.srgutils.IMappingFile.IField;
+import net.minecraftforge.srgutils.IMappingFile.IMethod;
+import net.minecraftforge.srgutils.IMappingFile.IPackage;
+import net.minecraftforge.srgutils.IMappingFile.IParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryMappingFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        IMappingBuilder builder = IMappingBuilder.create("left", "right");
+        builder.addPackage("net/minecraft/world", "net/minecraft/world").meta("pkg_meta", "value");
+        IMappingBuilder.IClass level = builder.addClass("net/minecraft/world/level/Level", "net/minecraft/world/level/Level");
+        level.field("isClientSide", "f_46443_").descriptor("Z");
+        level.field("random", "f_46441_");
+        IMappingBuilder.IMethod getGameTime = level.method("(Lnet/minecraft/core/BlockPos;J)J", "getGameTime", "m_46467_");
+        getGameTime.parameter(0, "pos", "p_46468_");
+        getGameTime.parameter(1, "offset", "p_46469_").meta("param_meta", "value");
+        IMappingBuilder.IMethod create = level.method("(ID)Lnet/minecraft/world/level/Level;", "create", "m_46470_");
+        create.meta("is_static", "");
+        create.parameter(0, "id", "p_46471_");
+        create.parameter(2, "scale", "p_46472_");
+        builder.addClass("net/minecraft/world/level/Empty", "net/minecraft/src/C_1234_").meta("class_meta", "value");
+        IMappingFile original = builder.build().getMap("left", "right");
+
+        Path path = tempDir.resolve("mojtosrg.bin");
+        BinaryMappingFile.write(original, path);
+        IMappingFile read = BinaryMappingFile.read(path);
+
+        assertEquals(original.getPackages().size(), read.getPackages().size());
+        for (IPackage pkg : original.getPackages()) {
+            IPackage readPkg = read.getPackage(pkg.getOriginal());
+            assertNotNull(readPkg, pkg.getOriginal());
+            assertEquals(pkg.getMapped(), readPkg.getMapped());
+            assertEquals(pkg.getMetadata(), readPkg.getMetadata());
+        }
+
+        assertEquals(original.getClasses().size(), read.getClasses().size());
+        for (IClass cls : original.getClasses()) {
+            IClass readCls = read.getClass(cls.getOriginal());
+            assertNotNull(readCls, cls.getOriginal());
+            assertEquals(cls.getMapped(), readCls.getMapped());
+            assertEquals(cls.getMetadata(), readCls.getMetadata());
+
+            assertEquals(cls.getFields().size(), readCls.getFields().size());
+            for (IField field : cls.getFields()) {
+                IField readField = readCls.getField(field.getOriginal());
+                assertNotNull(readField, field.getOriginal());
+                assertEquals(field.getMapped(), readField.getMapped());
+                assertEquals(field.getDescriptor(), readField.getDescriptor());
+                assertEquals(field.getMetadata(), readField.getMetadata());
+            }
+
+            assertEquals(cls.getMethods().size(), readCls.getMethods().size());
+            for (IMethod method : cls.getMethods()) {
+                IMethod readMethod = readCls.getMethod(method.getOriginal(), method.getDescriptor());
+                assertNotNull(readMethod, method.getOriginal() + method.getDescriptor());
+                assertEquals(method.getMapped(), readMethod.getMapped());
+                assertEquals(method.getMetadata(), readMethod.getMetadata());
+
+                assertEquals(method.getParameters().size(), readMethod.getParameters().size());
+                Iterator<? extends IParameter> readParams = readMethod.getParameters().iterator();
+                for (IParameter param : method.getParameters()) {
+                    IParameter readParam = readParams.next();
+                    assertEquals(param.getIndex(), readParam.getIndex());
+                    assertEquals(param.getOriginal(), readParam.getOriginal());
+                    assertEquals(param.getMapped(), readParam.getMapped());
+                    assertEquals(param.getMetadata(), readParam.getMetadata());
+                }
+            }
+        }
+
+        // Spot checks for the data convertJvmIndexToSrgIndex relies on
+        IClass readLevel = read.getClass("net/minecraft/world/level/Level");
+        assertTrue(readLevel.getMethod("create", "(ID)Lnet/minecraft/world/level/Level;").getMetadata().containsKey("is_static"));
+        assertFalse(readLevel.getMethod("getGameTime", "(Lnet/minecraft/core/BlockPos;J)J").getMetadata().containsKey("is_static"));
+        assertEquals("Z", readLevel.getField("isClientSide").getDescriptor());
+        assertNull(readLevel.getField("random").getDescriptor());
+    }
+
+    @Test
+    public void testRejectsCorruptFile() throws IOException {
+        Path path = tempDir.resolve("corrupt.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(0x4C424D46);
+            out.writeInt(1);
+            out.writeInt(-5); // String table size
+        }
+
+        assertThrows(IOException.class, () -> BinaryMappingFile.read(path));
+    }
+
+    @Test
+    public void testRejectsOutOfRangeStringIndex() throws IOException {
+        Path path = tempDir.resolve("corrupt.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(0x4C424D46);
+            out.writeInt(1);
+            out.writeInt(0); // String table size
+            out.writeInt(1); // Package count
+            out.writeInt(7); // Missing string
+            out.writeInt(7);
+        }
+
+        assertThrows(IOException.class, () -> BinaryMappingFile.read(path));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappingCsvTest {
+    @Test
+    public void testRowsMatchAppendedValues() {
+        MappingCsv csv = new MappingCsv();
+        assertTrue(csv.isEmpty());
+        csv.field("m_1_").field("tick").field("");
+        csv.append("p_").append(-2147483648).append('_').endField().field("count").field("The count");
+        csv.appendDotted("net/minecraft/world/level/Level").append('#').append("<init>").endField().field("<init>").field("Creates a level.");
+        // An incomplete row is not part of the CSV yet
+        csv.field("m_2_");
+
+        assertEquals(3, csv.size());
+        assertArrayEquals(new String[]{"m_1_", "tick", ""}, csv.getRow(0));
+        assertArrayEquals(new String[]{"p_-2147483648_", "count", "The count"}, csv.getRow(1));
+        assertArrayEquals(new String[]{"net.minecraft.world.level.Level#<init>", "<init>", "Creates a level."}, csv.getRow(2));
+        assertEquals(3, csv.rows().size());
+        assertArrayEquals(csv.getRow(1), csv.rows().get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> csv.get(3, 0));
+
+        csv.clear();
+        assertTrue(csv.isEmpty());
+        assertEquals(0, csv.size());
+    }
+
+    @Test
+    public void testEncodesUtf8LikeString() {
+        // Two byte, three byte, surrogate pair and unpaired surrogate characters
+        String value = "caf\u00e9 \u2603 \ud83d\ude00 \ud800 end";
+        MappingCsv csv = new MappingCsv();
+        csv.field(value).field("").field("");
+        assertEquals(new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), csv.get(0, 0));
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        MappingCsv csv = new MappingCsv();
+        StringBuilder javadoc = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            javadoc.append('\u00e9');
+        for (int i = 0; i < 5000; i++)
+            csv.append("m_").append(i).append('_').endField().field("name").field(javadoc);
+
+        assertEquals(5000, csv.size());
+        assertArrayEquals(new String[]{"m_4999_", "name", javadoc.toString()}, csv.getRow(4999));
+    }
+
+    @Test
+    public void testWriteQuotesFields() throws IOException {
+        MappingCsv csv = new MappingCsv();
+        csv.field("m_1_").field("tick").field("Ticks, and \"quotes\"");
+        csv.field("m_2_").field("line").field("First\nSecond\r\nThird");
+        csv.field("m_3_").field("plain").field("Just text");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        csv.writeTo(out);
+        assertEquals("searge,name,desc\n"
+                + "m_1_,tick,\"Ticks, and \"\"quotes\"\"\"\n"
+                + "m_2_,line,\"First\nSecond\r\nThird\"\n"
+                + "m_3_,plain,Just text\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Librarian
+ * Copyright (C) 2021 ParchmentMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.parchmentmc.librarian.forgegradle;
+
+import net.minecraftforge.srgutils.IMappingBuilder;
+import net.minecraftforge.srgutils.IMappingFile.IClass;
+import net.minecraftforge.srgutils.IMappingFile.IMethod;
+import net.minecraftforge.srgutils.IMappingFile.IParameter;
+import org.junit.jupiter.api.Test;
+import org.parchmentmc.feather.mapping.MappingDataBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ParchmentChannelProviderTest {
+    private static final String CLASS = "net/minecraft/world/level/Level";
+    private static final String[] DESCRIPTORS = {
+            "()V",
+            "(I)V",
+            "(IJD)V",
+            "(DDLnet/minecraft/core/BlockPos;J)V",
+            "([JLjava/lang/String;D[[Lnet/minecraft/world/level/Level;Z)J",
+            "([D[J[[I)V",
+            "(ZBCSIFJD)Ljava/lang/Object;"
+    };
+
+    private final ParchmentChannelProvider provider = new ParchmentChannelProvider();
+
+    @Test
+    public void testConvertJvmIndexMatchesRegexImplementation() {
+        for (String descriptor : DESCRIPTORS) {
+            for (boolean isStatic : new boolean[]{false, true}) {
+                IMethod method = createMethod(descriptor, isStatic, 0);
+                for (int jvmIndex = 0; jvmIndex < 16; jvmIndex++) {
+                    assertEquals(convertJvmIndexWithRegex(descriptor, isStatic, jvmIndex), provider.convertJvmIndexToSrgIndex(method, jvmIndex),
+                            () -> "Mismatch for " + descriptor + " static=" + isStatic);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGetSrgIdMatchesSplit() {
+        for (String name : new String[]{"func_12345_a", "m_12345_", "field_1234_b", "_a", "a_b", "a__b", "lambda$foo$0_bar", "apply_a_b_c"}) {
+            assertEquals(name.split("_")[1], ParchmentChannelProvider.getSrgId(name), name);
+        }
+        assertEquals("apply", ParchmentChannelProvider.getSrgId("apply"));
+    }
+
+    @Test
+    public void testIsLettersOnlyMatchesRegex() {
+        Pattern lettersOnly = Pattern.compile("[a-zA-Z]+");
+        for (String value : new String[]{"", "a", "Apply", "12345", "a1", "get_", "zZ", "\u00e9t\u00e9", "a b"}) {
+            assertEquals(lettersOnly.matcher(value).matches(), ParchmentChannelProvider.isLettersOnly(value), value);
+        }
+    }
+
+    @Test
+    public void testGetParameter() {
+        IMethod method = createMethod("(IJD)V", false, 3);
+        List<IParameter> asList = new ArrayList<>(method.getParameters());
+        LinkedHashSet<IParameter> asSet = new LinkedHashSet<>(method.getParameters());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(asList.get(i).getMapped(), ParchmentChannelProvider.getParameter(asList, i).getMapped());
+            assertEquals(asList.get(i).getMapped(), ParchmentChannelProvider.getParameter(asSet, i).getMapped());
+        }
+        assertNull(ParchmentChannelProvider.getParameter(asList, 3));
+        assertNull(ParchmentChannelProvider.getParameter(asSet, 3));
+    }
+
+    @Test
+    public void testPopulateParametersOfficial() {
+        IMethod method = createMethod("(IJD)V", false, 3);
+        MappingDataBuilder.MutableMethodData methodData = new MappingDataBuilder()
+                .createClass("Level")
+                .createMethod("tick", "(IJD)V");
+        methodData.createParameter((byte) 1).setName("count");
+        methodData.createParameter((byte) 2).setName("time");
+        methodData.createParameter((byte) 4).setName("scale");
+        methodData.createParameter((byte) 6).setName("outOfRange");
+
+        MappingCsv csv = new MappingCsv();
+        provider.populateParameters(true, csv, null, method, methodData, null);
+
+        assertEquals(3, csv.size());
+        assertArrayEquals(new String[]{"p_0_", "count", ""}, csv.getRow(0));
+        assertArrayEquals(new String[]{"p_1_", "time", ""}, csv.getRow(1));
+        assertArrayEquals(new String[]{"p_2_", "scale", ""}, csv.getRow(2));
+    }
+
+    @Test
+    public void testPopulateParametersLegacy() {
+        MappingDataBuilder.MutableMethodData methodData = new MappingDataBuilder()
+                .createClass("Level")
+                .createMethod("tick", "(I)V");
+        methodData.createParameter((byte) 1).setName("count");
+
+        MappingCsv csv = new MappingCsv();
+        provider.populateParameters(false, csv, null, createMethod("func_12345_a", "(I)V", false, 0), methodData, new StringBuilder());
+        provider.populateParameters(false, csv, "6789", null, methodData, new StringBuilder());
+        // Functional interface methods keep their name and have no SRG id to build parameter names from
+        provider.populateParameters(false, csv, null, createMethod("apply", "(I)V", false, 0), methodData, new StringBuilder());
+
+        assertEquals(2, csv.size());
+        assertArrayEquals(new String[]{"p_12345_1_", "count", ""}, csv.getRow(0));
+        assertArrayEquals(new String[]{"p_i6789_1_", "count", ""}, csv.getRow(1));
+    }
+
+    @Test
+    public void testPopulateMappings() {
+        IMethod method = createMethod("(I)V", false, 0);
+        IClass cls = method.getParent();
+        MappingCsv csv = new MappingCsv();
+        provider.populateMappings(csv, cls, method, Arrays.asList("Ticks the level.", "", "@param count the count"));
+        provider.populateMappings(csv, cls, method, null);
+        // Special members are only written when documented, and are keyed by their dotted class name
+        provider.populateMappings(csv, cls, null, "", "<init>", "<init>", false);
+        provider.populateMappings(csv, cls, null, "Creates a level.", "<init>", "<init>", false);
+        // Unmapped names are skipped unless documented
+        provider.populateMappings(csv, cls, null, "", "m_1_", "m_1_", true);
+
+        assertEquals(3, csv.size());
+        assertArrayEquals(new String[]{"m_1_", "tick", "Ticks the level.\\n\\n@param count the count"}, csv.getRow(0));
+        assertArrayEquals(new String[]{"m_1_", "tick", ""}, csv.getRow(1));
+        assertArrayEquals(new String[]{"net.minecraft.world.level.Level#<init>", "<init>", "Creates a level."}, csv.getRow(2));
+    }
+
+    private static IMethod createMethod(String descriptor, boolean isStatic, int parameters) {
+        return createMethod("m_1_", descriptor, isStatic, parameters);
+    }
+
+    private static IMethod createMethod(String name, String descriptor, boolean isStatic, int parameters) {
+        IMappingBuilder builder = IMappingBuilder.create("left", "right");
+        IMappingBuilder.IMethod method = builder.addClass(CLASS, CLASS).method(descriptor, "tick", name);
+        if (isStatic)
+            method.meta("is_static", "");
+        for (int i = 0; i < parameters; i++)
+            method.parameter(i, "o" + i, "p_" + i + "_");
+        return builder.build().getMap("left", "right").getClass(CLASS).getMethod("tick", descriptor);
+    }
+
+    /**
+     * The regex based implementation which {@link ParchmentChannelProvider#convertJvmIndexToSrgIndex(IMethod, int)} replaced.
+     */
+    private static int convertJvmIndexWithRegex(String descriptor, boolean isStatic, int jvmIndex) {
+        String args = descriptor.substring(1, descriptor.lastIndexOf(')'));
+        args = Pattern.compile("L.+?;").matcher(args).replaceAll("L");
+        args = Pattern.compile("\\[+.").matcher(args).replaceAll("L");
+        int currentIdx = isStatic ? 0 : 1;
+        int srgIdx = 0;
+        while (currentIdx < jvmIndex) {
+            if (srgIdx < args.length() && (args.charAt(srgIdx) == 'J' || args.charAt(srgIdx) == 'D')) {
+                currentIdx += 2;
+            } else {
+                currentIdx++;
+            }
+            srgIdx++;
+        }
+        return srgIdx;
+    }
+}